@@ -7,6 +7,7 @@ package Customs;
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.LineBorder;
+import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.RoundRectangle2D;
@@ -26,6 +27,11 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
     protected final double RESIZE_BORDER_SIZE;
     protected double borderRadius;
 
+    // Activity counters, published by the EdtWatchdog
+    protected final FrameCounters counters = new FrameCounters();
+    // Live thumbnails, updated from the dirty regions of the frame
+    protected final FrameThumbnails thumbnails = new FrameThumbnails(this);
+
     // Title bar panel
     protected TitleBarPanel titleBar = new TitleBarPanel();
 
@@ -89,6 +95,7 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
          * @param e The MouseEvent when the mouse is dragged.
          */
         public void mouseDragged(MouseEvent e) {
+            counters.dragEvent();
             int deltaX = e.getX() - initialLocation.x;
             int deltaY = e.getY() - initialLocation.y;
             Point[] frameLocation = getFrameLocation();
@@ -205,6 +212,85 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
         }
     }
 
+    /**
+     * Creates the root pane, which reports the repainted regions of the frame to its thumbnails.
+     *
+     * @return The root pane.
+     */
+    @Override
+    protected JRootPane createRootPane() {
+        ThumbnailRootPane rootPane = new ThumbnailRootPane();
+        rootPane.setOpaque(true);
+        return rootPane;
+    }
+
+    /**
+     * Paints the frame and reports the painted region to the thumbnails.
+     * Catches the repaints of the window itself, which do not go through the root pane.
+     *
+     * @param g The graphics context to paint to.
+     */
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            thumbnails.invalidate();
+        } else {
+            thumbnails.addDirtyRegion(SwingUtilities.convertRectangle(this, clip, getRootPane()));
+        }
+    }
+
+    /**
+     * Inner class representing the root pane of the custom frame.
+     * While the frame has thumbnails, it is the painting origin of all its children, so every repaint of the frame
+     * goes through its paintImmediately on the event dispatch thread and can be reported to the thumbnails.
+     * Repaints then start at the root pane instead of the nearest opaque component; they stay clipped to the
+     * dirty region. Without thumbnails the root pane behaves like a regular JRootPane.
+     */
+    protected class ThumbnailRootPane extends JRootPane {
+
+        /**
+         * Makes the root pane the painting origin while the frame has thumbnails.
+         *
+         * @return True if the frame has thumbnails, otherwise false.
+         */
+        @Override
+        protected boolean isPaintingOrigin() {
+            // Also called while the JFrame constructor runs, before the thumbnails exist
+            return thumbnails != null && thumbnails.isActive();
+        }
+
+        /**
+         * Paints a region of the root pane and reports it to the thumbnails.
+         *
+         * @param x The x coordinate of the region.
+         * @param y The y coordinate of the region.
+         * @param w The width of the region.
+         * @param h The height of the region.
+         */
+        @Override
+        public void paintImmediately(int x, int y, int w, int h) {
+            super.paintImmediately(x, y, w, h);
+            if (thumbnails != null && w > 0 && h > 0) {
+                thumbnails.addDirtyRegion(new Rectangle(x, y, w, h));
+            }
+        }
+
+        /**
+         * Validates the root pane and lets the thumbnails listen to newly added viewports.
+         * Overrides validateTree rather than validate, because validating the frame, packing or showing it
+         * only reaches the root pane through validateTree.
+         */
+        @Override
+        protected void validateTree() {
+            super.validateTree();
+            if (thumbnails != null && EventQueue.isDispatchThread()) {
+                thumbnails.attachViewports();
+            }
+        }
+    }
+
     /**
      * Rounds the corners of the frame to create a visually pleasing effect.
      *
@@ -214,6 +300,7 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
     protected void roundCorners(int width, int height){
         RoundRectangle2D roundedRectangle = new RoundRectangle2D.Double(0, 0, width, height, borderRadius, borderRadius);
         setShape(roundedRectangle);
+        counters.shapeUpdate();
     }
 
     /**
@@ -310,6 +397,85 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
      * @return The title bar panel.
      */
     public JPanel getTitleBar() {return titleBar;}
+    /**
+     * Gets the border radius for rounding frame corners.
+     *
+     * @return The border radius.
+     */
+    public double getBorderRadius() {return borderRadius;}
+    /**
+     * Applies a theme to the frame: title bar colors, button border, button icons and corner radius.
+     * Must be called on the event dispatch thread. All changes are coalesced into one repaint of the frame;
+     * to switch the theme of several frames at once, use a ThemeRegistry.
+     *
+     * @param theme The theme to apply.
+     * @throws IllegalArgumentException if the theme is null.
+     */
+    public void applyTheme(Theme theme) {
+        if (theme == null) {
+            throw new IllegalArgumentException("theme must not be null");
+        }
+        titleBar.setBackground(theme.getTitleBarBackground());
+        titleBar.setForeground(theme.getTitleBarForeground());
+        if (titleBar.getButtonBorder() != theme.getButtonBorder()) {
+            titleBar.setButtonBorder(theme.getButtonBorder());
+        }
+        titleBar.setInvertedIcons(theme.isInvertedIcons());
+        if (borderRadius != theme.getBorderRadius()) {
+            borderRadius = theme.getBorderRadius();
+            roundCorners(getFrameWidth(), getFrameHeight());
+        }
+    }
+    /**
+     * Gets the activity counters of the frame.
+     *
+     * @return The counters of drag events, shape updates, relayouts and icon reloads.
+     */
+    public FrameCounters getCounters() {return counters;}
+    /**
+     * Gets a live thumbnail of the frame at the given size.
+     * The thumbnail is cached and only the repainted regions of the frame are downscaled into it,
+     * at most once per thumbnail refresh interval. It is not updated while the frame is iconified.
+     * Must be called on the event dispatch thread, since a new size is rendered right away.
+     *
+     * @param width  The width of the thumbnail.
+     * @param height The height of the thumbnail.
+     * @return The thumbnail, which is updated in place and must not be modified.
+     * @throws IllegalStateException if not called on the event dispatch thread.
+     */
+    public BufferedImage getThumbnail(int width, int height) {return thumbnails.getThumbnail(width, height);}
+    /**
+     * Removes the cached thumbnail of the given size so that it is no longer updated.
+     * Must be called on the event dispatch thread.
+     *
+     * @param width  The width of the thumbnail.
+     * @param height The height of the thumbnail.
+     */
+    public void releaseThumbnail(int width, int height) {thumbnails.releaseThumbnail(width, height);}
+    /**
+     * Sets the minimum time between two thumbnail updates.
+     *
+     * @param millis The refresh interval in milliseconds.
+     */
+    public void setThumbnailRefreshInterval(int millis) {thumbnails.setRefreshInterval(millis);}
+    /**
+     * Gets the minimum time between two thumbnail updates.
+     *
+     * @return The refresh interval in milliseconds.
+     */
+    public int getThumbnailRefreshInterval() {return thumbnails.getRefreshInterval();}
+    /**
+     * Adds a listener that is notified after the thumbnails have been updated.
+     *
+     * @param listener The listener to add.
+     */
+    public void addThumbnailListener(ChangeListener listener) {thumbnails.addChangeListener(listener);}
+    /**
+     * Removes a thumbnail listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeThumbnailListener(ChangeListener listener) {thumbnails.removeChangeListener(listener);}
 
 
 
@@ -337,6 +503,7 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
          */
         @Override
         public void mouseDragged(MouseEvent e) {
+            counters.dragEvent();
             int deltaX = e.getX() - mouseX;
             int deltaY = e.getY() - mouseY;
             CusFrame.this.setLocation(CusFrame.this.getX() + deltaX, CusFrame.this.getY() + deltaY);
@@ -367,14 +534,11 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
         public TitleBarPanel() {
             setLayout(new TitleBarLayout());
             label = new JLabel("CusFrame");
-            minimizeIcon = new ImageIcon("icons/minimize.png");
-            minimizeIcon = new ImageIcon(scaleImage(minimizeIcon.getImage(), 20,20));
-            maximizeIcon = new ImageIcon("icons/maximize.png");
-            maximizeIcon = new ImageIcon(scaleImage(maximizeIcon.getImage(), 20,20));
-            closeIcon = new ImageIcon("icons/close.png");
-            closeIcon = new ImageIcon(scaleImage(closeIcon.getImage(), 20,20));
-            shrinkIcon = new ImageIcon("icons/shrink.png");
-            shrinkIcon = new ImageIcon(scaleImage(shrinkIcon.getImage(), 20,20));
+            TitleBarIcons icons = TitleBarIcons.get(false);
+            minimizeIcon = icons.getMinimizeIcon();
+            maximizeIcon = icons.getMaximizeIcon();
+            closeIcon = icons.getCloseIcon();
+            shrinkIcon = icons.getShrinkIcon();
             minimizeButton = new JButton(minimizeIcon);
             maximizeButton = new JButton(maximizeIcon);
             closeButton = new JButton(closeIcon);
@@ -472,32 +636,43 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
 
         }
 
+        /**
+         * Switches the button icons between the normal (black) and the inverted (white) variant.
+         */
         public void invertButtonIcon(){
-            if (isInversed) {
-                minimizeIcon = new ImageIcon("icons/minimizeInverted.png");
-                minimizeIcon = new ImageIcon(scaleImage(minimizeIcon.getImage(), 20,20));
-                maximizeIcon = new ImageIcon("icons/maximizeInverted.png");
-                maximizeIcon = new ImageIcon(scaleImage(maximizeIcon.getImage(), 20,20));
-                closeIcon = new ImageIcon("icons/closeInverted.png");
-                closeIcon = new ImageIcon(scaleImage(closeIcon.getImage(), 20,20));
-                shrinkIcon = new ImageIcon("icons/shrinkInverted.png");
-                shrinkIcon = new ImageIcon(scaleImage(shrinkIcon.getImage(), 20,20));
-            } else {
-                minimizeIcon = new ImageIcon("icons/minimize.png");
-                minimizeIcon = new ImageIcon(scaleImage(minimizeIcon.getImage(), 20,20));
-                maximizeIcon = new ImageIcon("icons/maximize.png");
-                maximizeIcon = new ImageIcon(scaleImage(maximizeIcon.getImage(), 20,20));
-                closeIcon = new ImageIcon("icons/close.png");
-                closeIcon = new ImageIcon(scaleImage(closeIcon.getImage(), 20,20));
-                shrinkIcon = new ImageIcon("icons/shrink.png");
-                shrinkIcon = new ImageIcon(scaleImage(shrinkIcon.getImage(), 20,20));
+            setInvertedIcons(!isInversed);
+        }
+
+        /**
+         * Sets the variant of the button icons. The icons are shared pre-rendered TitleBarIcons,
+         * so nothing is reloaded from disk. Does nothing if the variant is already in use.
+         *
+         * @param inverted True for the inverted (white) icons, false for the normal (black) icons.
+         */
+        public void setInvertedIcons(boolean inverted){
+            if (inverted == isInversed) {
+                return;
             }
+            counters.iconReload();
+            isInversed = inverted;
+            TitleBarIcons icons = TitleBarIcons.get(inverted);
+            minimizeIcon = icons.getMinimizeIcon();
+            maximizeIcon = icons.getMaximizeIcon();
+            closeIcon = icons.getCloseIcon();
+            shrinkIcon = icons.getShrinkIcon();
 
             minimizeButton.setIcon(minimizeIcon);
-            maximizeButton.setIcon(maximizeIcon);
+            maximizeButton.setIcon(isMax ? shrinkIcon : maximizeIcon);
             closeButton.setIcon(closeIcon);
         }
 
+        /**
+         * Checks whether the inverted button icons are in use.
+         *
+         * @return True for the inverted (white) icons, false for the normal (black) icons.
+         */
+        public boolean isInvertedIcons(){return isInversed;}
+
         /**
          * Inner Class: TitleBarLayout
          * Implements the LayoutManager interface for custom layout of title bar components.
@@ -538,6 +713,7 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
              */
             @Override
             public void layoutContainer(Container parent) {
+                counters.relayout();
                 int width = parent.getWidth();
                 int height = parent.getHeight();
 
@@ -561,19 +737,17 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
         }
 
         /**
-         * Scales the given image to the specified width and height.
+         * Sets the foreground color of the title bar and of its label.
          *
-         * @param image  The original image to be scaled.
-         * @param width  The target width of the scaled image.
-         * @param height The target height of the scaled image.
-         * @return The scaled image.
+         * @param fg The foreground color.
          */
-        protected Image scaleImage(Image image, int width, int height) {
-            BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D graphics = scaledImage.createGraphics();
-            graphics.drawImage(image, 0, 0, width, height, null);
-            graphics.dispose();
-            return scaledImage;
+        @Override
+        public void setForeground(Color fg){
+            super.setForeground(fg);
+            // The label is not created yet while the JPanel constructor installs the look and feel colors
+            if (label != null) {
+                label.setForeground(fg);
+            }
         }
         /**
          * Sets the text of the title bar label.
@@ -625,13 +799,14 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
     public void componentResized(ComponentEvent e) {
         frameHeight = getHeight();
         frameWidth = getWidth();
+        thumbnails.invalidate();
     }
 
     @Override
     public void componentMoved(ComponentEvent e) {}
 
     @Override
-    public void componentShown(ComponentEvent e) {}
+    public void componentShown(ComponentEvent e) {thumbnails.scheduleRefresh();}
 
     @Override
     public void componentHidden(ComponentEvent e) {}
@@ -640,6 +815,8 @@ public class CusFrame extends JFrame implements ActionListener, ComponentListene
     public void windowStateChanged(WindowEvent e) {
         frameHeight = getHeight();
         frameWidth = getWidth();
+        // Catches up on the repaints missed while the frame was iconified
+        thumbnails.scheduleRefresh();
     }
 
     /**
@@ -0,0 +1,295 @@
+/**
+ * Opt-in watchdog that measures how long events wait on the event dispatch thread (EDT).
+ * It regularly posts a probe event to the event queue and times how long it takes until the probe runs.
+ * When a probe waits longer than the stall threshold, the stack trace of the EDT is captured.
+ * Stall counts, the latency histogram and the activity counters of the watched frames are
+ * published on the platform MBean server under the name {@value #OBJECT_NAME}.
+ */
+package Customs;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.awt.EventQueue;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class EdtWatchdog implements EdtWatchdogMXBean {
+
+    // Name under which the watchdog is registered
+    public static final String OBJECT_NAME = "Customs:type=EdtWatchdog";
+    // Exclusive upper bounds of the latency histogram buckets in milliseconds
+    protected static final long[] BUCKET_BOUNDS_MILLIS = {1, 5, 16, 50, 100, 250, 500, 1000};
+
+    // Probe interval and stall threshold
+    protected final long probeIntervalMillis;
+    protected final long stallThresholdMillis;
+
+    // Probe statistics
+    protected final AtomicLong probeCount = new AtomicLong();
+    protected final AtomicLong stallCount = new AtomicLong();
+    protected final AtomicLongArray histogram = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+    protected volatile long lastLatencyMillis;
+    protected volatile long maxLatencyMillis;
+    protected volatile String lastStallStackTrace = "";
+
+    // State of the probe that is currently waiting on the event queue, guarded by this
+    protected long pendingSince;
+    protected boolean pendingStallReported;
+    // The event dispatch thread as seen by the last probe
+    protected volatile Thread eventDispatchThread;
+
+    // Watched frames, held weakly so that disposed frames can be collected
+    protected final Map<CusFrame, Boolean> frames = Collections.synchronizedMap(new WeakHashMap<>());
+    protected ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a watchdog that probes every 100 milliseconds and reports stalls longer than 500 milliseconds.
+     */
+    public EdtWatchdog() {
+        this(100, 500);
+    }
+
+    /**
+     * Constructs a watchdog. The watchdog does nothing until it is started.
+     *
+     * @param probeIntervalMillis  the interval between two probes, which is also how often stalls are checked for.
+     * @param stallThresholdMillis the latency above which the event dispatch thread counts as stalled.
+     */
+    public EdtWatchdog(long probeIntervalMillis, long stallThresholdMillis) {
+        if (probeIntervalMillis <= 0 || stallThresholdMillis <= 0) {
+            throw new IllegalArgumentException("probe interval and stall threshold must be positive");
+        }
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.stallThresholdMillis = stallThresholdMillis;
+    }
+
+    /**
+     * Adds a frame whose activity counters are published by this watchdog.
+     *
+     * @param frame The frame to watch.
+     */
+    public void watch(CusFrame frame) {frames.put(frame, Boolean.TRUE);}
+    /**
+     * Removes a frame from this watchdog.
+     *
+     * @param frame The frame to stop watching.
+     */
+    public void unwatch(CusFrame frame) {frames.remove(frame);}
+
+    /**
+     * Starts probing the event dispatch thread and registers the watchdog on the platform MBean server.
+     * Calling this method on a running watchdog has no effect.
+     *
+     * @throws IllegalStateException if another watchdog is already registered.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException("another EdtWatchdog is already running", e);
+        } catch (JMException e) {
+            throw new IllegalStateException("could not register the EdtWatchdog", e);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EdtWatchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops probing and unregisters the watchdog from the platform MBean server.
+     * Calling this method on a stopped watchdog has no effect.
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // Already unregistered by someone else
+        } catch (JMException e) {
+            throw new IllegalStateException("could not unregister the EdtWatchdog", e);
+        }
+    }
+
+    /**
+     * Checks whether the watchdog is running.
+     *
+     * @return True if the watchdog has been started and not stopped, otherwise false.
+     */
+    public synchronized boolean isRunning() {return scheduler != null;}
+
+    /**
+     * Runs on the watchdog thread. Posts a new probe if none is pending,
+     * otherwise checks whether the pending probe has been waiting too long.
+     */
+    protected void tick() {
+        boolean stalled = false;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (pendingSince == 0) {
+                pendingSince = now;
+                pendingStallReported = false;
+                EventQueue.invokeLater(this::probe);
+            } else if (!pendingStallReported && TimeUnit.NANOSECONDS.toMillis(now - pendingSince) > stallThresholdMillis) {
+                pendingStallReported = true;
+                stalled = true;
+            }
+        }
+        // The stack trace is taken outside the lock so that the probe is never kept waiting by it
+        if (stalled) {
+            stallCount.incrementAndGet();
+            Thread edt = findEventDispatchThread();
+            if (edt != null) {
+                lastStallStackTrace = formatStackTrace(edt);
+            }
+        }
+    }
+
+    /**
+     * Runs on the event dispatch thread and records how long the probe has been waiting.
+     */
+    protected void probe() {
+        eventDispatchThread = Thread.currentThread();
+        long latencyMillis;
+        boolean missedStall;
+        synchronized (this) {
+            latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingSince);
+            // A stall shorter than the probe interval is only noticed here, too late for a stack trace
+            missedStall = !pendingStallReported && latencyMillis > stallThresholdMillis;
+            pendingSince = 0;
+        }
+        if (missedStall) {
+            stallCount.incrementAndGet();
+        }
+        probeCount.incrementAndGet();
+        histogram.incrementAndGet(bucketOf(latencyMillis));
+        lastLatencyMillis = latencyMillis;
+        if (latencyMillis > maxLatencyMillis) {
+            maxLatencyMillis = latencyMillis;
+        }
+    }
+
+    /**
+     * Finds the histogram bucket for a latency.
+     *
+     * @param latencyMillis The latency in milliseconds.
+     * @return The index of the bucket.
+     */
+    protected int bucketOf(long latencyMillis) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MILLIS.length && latencyMillis >= BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Finds the current event dispatch thread. This is the thread seen by the last probe if it is still alive.
+     * Otherwise, when no probe has finished yet because the thread was already stuck when the watchdog started,
+     * or when AWT has replaced the thread since, it is looked up by name among all live threads.
+     *
+     * @return The event dispatch thread, or null if none is running.
+     */
+    protected Thread findEventDispatchThread() {
+        Thread edt = eventDispatchThread;
+        if (edt != null && edt.isAlive()) {
+            return edt;
+        }
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("AWT-EventQueue-")) {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Formats the current stack trace of a thread.
+     *
+     * @param thread The thread to capture.
+     * @return The stack trace, one frame per line.
+     */
+    protected String formatStackTrace(Thread thread) {
+        StringBuilder builder = new StringBuilder(thread.getName()).append(" (").append(thread.getState()).append(")\n");
+        for (StackTraceElement element : thread.getStackTrace()) {
+            builder.append("\tat ").append(element).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public long getProbeIntervalMillis() {return probeIntervalMillis;}
+
+    @Override
+    public long getStallThresholdMillis() {return stallThresholdMillis;}
+
+    @Override
+    public long getProbeCount() {return probeCount.get();}
+
+    @Override
+    public long getStallCount() {return stallCount.get();}
+
+    @Override
+    public long getLastLatencyMillis() {return lastLatencyMillis;}
+
+    @Override
+    public long getMaxLatencyMillis() {return maxLatencyMillis;}
+
+    @Override
+    public long[] getLatencyBucketBoundsMillis() {return BUCKET_BOUNDS_MILLIS.clone();}
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public String getLastStallStackTrace() {return lastStallStackTrace;}
+
+    @Override
+    public Map<String, FrameCounters> getFrameCounters() {
+        Map<String, FrameCounters> counters = new TreeMap<>();
+        synchronized (frames) {
+            for (CusFrame frame : frames.keySet()) {
+                // Frame names are not unique, the identity hash keeps frames with the same name apart
+                String key = frame.getName() + "@" + Integer.toHexString(System.identityHashCode(frame));
+                counters.put(key, frame.getCounters().snapshot());
+            }
+        }
+        return counters;
+    }
+
+    @Override
+    public void reset() {
+        probeCount.set(0);
+        stallCount.set(0);
+        for (int i = 0; i < histogram.length(); i++) {
+            histogram.set(i, 0);
+        }
+        lastLatencyMillis = 0;
+        maxLatencyMillis = 0;
+        lastStallStackTrace = "";
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Management interface of the EdtWatchdog, published on the platform MBean server.
+ */
+package Customs;
+
+import java.util.Map;
+
+public interface EdtWatchdogMXBean {
+
+    /**
+     * Gets the interval between two probe events.
+     *
+     * @return The probe interval in milliseconds.
+     */
+    long getProbeIntervalMillis();
+
+    /**
+     * Gets the latency above which the event dispatch thread counts as stalled.
+     *
+     * @return The stall threshold in milliseconds.
+     */
+    long getStallThresholdMillis();
+
+    /**
+     * Gets the number of probe events that have run on the event dispatch thread.
+     *
+     * @return The number of completed probes.
+     */
+    long getProbeCount();
+
+    /**
+     * Gets the number of detected stalls.
+     *
+     * @return The number of stalls.
+     */
+    long getStallCount();
+
+    /**
+     * Gets the latency of the last completed probe.
+     *
+     * @return The last latency in milliseconds.
+     */
+    long getLastLatencyMillis();
+
+    /**
+     * Gets the highest latency seen so far.
+     *
+     * @return The highest latency in milliseconds.
+     */
+    long getMaxLatencyMillis();
+
+    /**
+     * Gets the upper bounds of the latency histogram buckets.
+     * The last bucket of the histogram has no upper bound.
+     *
+     * @return The exclusive upper bounds in milliseconds.
+     */
+    long[] getLatencyBucketBoundsMillis();
+
+    /**
+     * Gets the number of probes per latency bucket.
+     *
+     * @return The histogram, one entry more than there are bucket bounds.
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Gets the stack trace of the event dispatch thread captured during the last stall.
+     *
+     * @return The stack trace, or an empty string if there was no stall yet.
+     */
+    String getLastStallStackTrace();
+
+    /**
+     * Gets the activity counters of all watched frames.
+     *
+     * @return The counters keyed by the name of the frame followed by its identity hash code, e.g. {@code frame0@1b6d3586}.
+     */
+    Map<String, FrameCounters> getFrameCounters();
+
+    /**
+     * Resets the probe statistics. The frame counters are not affected.
+     */
+    void reset();
+}
@@ -0,0 +1,91 @@
+/**
+ * Per-frame activity counters of a CusFrame.
+ * The counters are written on the event dispatch thread and may be read from any thread,
+ * for example by the EdtWatchdog when it is queried over JMX.
+ */
+package Customs;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FrameCounters {
+
+    // Live counters, only touched through the increment methods
+    protected final AtomicLong dragEvents = new AtomicLong();
+    protected final AtomicLong shapeUpdates = new AtomicLong();
+    protected final AtomicLong relayouts = new AtomicLong();
+    protected final AtomicLong iconReloads = new AtomicLong();
+
+    /**
+     * Constructs a set of counters that all start at zero.
+     */
+    public FrameCounters() {}
+
+    /**
+     * Constructs a set of counters with the given start values.
+     * Used to take snapshots and to rebuild the counters from their JMX representation.
+     *
+     * @param dragEvents   the number of drag events.
+     * @param shapeUpdates the number of shape updates.
+     * @param relayouts    the number of title bar relayouts.
+     * @param iconReloads  the number of title bar icon reloads.
+     */
+    @ConstructorProperties({"dragEvents", "shapeUpdates", "relayouts", "iconReloads"})
+    public FrameCounters(long dragEvents, long shapeUpdates, long relayouts, long iconReloads) {
+        this.dragEvents.set(dragEvents);
+        this.shapeUpdates.set(shapeUpdates);
+        this.relayouts.set(relayouts);
+        this.iconReloads.set(iconReloads);
+    }
+
+    /**
+     * Counts one mouse drag on the title bar or the resize border.
+     */
+    public void dragEvent() {dragEvents.incrementAndGet();}
+    /**
+     * Counts one update of the frame shape.
+     */
+    public void shapeUpdate() {shapeUpdates.incrementAndGet();}
+    /**
+     * Counts one layout pass of the title bar.
+     */
+    public void relayout() {relayouts.incrementAndGet();}
+    /**
+     * Counts one reload of the title bar button icons.
+     */
+    public void iconReload() {iconReloads.incrementAndGet();}
+
+    /**
+     * Gets the number of drag events.
+     *
+     * @return The number of drag events.
+     */
+    public long getDragEvents() {return dragEvents.get();}
+    /**
+     * Gets the number of shape updates.
+     *
+     * @return The number of shape updates.
+     */
+    public long getShapeUpdates() {return shapeUpdates.get();}
+    /**
+     * Gets the number of title bar relayouts.
+     *
+     * @return The number of title bar relayouts.
+     */
+    public long getRelayouts() {return relayouts.get();}
+    /**
+     * Gets the number of title bar icon reloads.
+     *
+     * @return The number of title bar icon reloads.
+     */
+    public long getIconReloads() {return iconReloads.get();}
+
+    /**
+     * Takes a copy of the current counter values that no longer changes.
+     *
+     * @return A snapshot of the counters.
+     */
+    public FrameCounters snapshot() {
+        return new FrameCounters(getDragEvents(), getShapeUpdates(), getRelayouts(), getIconReloads());
+    }
+}
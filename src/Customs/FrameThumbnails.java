@@ -0,0 +1,412 @@
+/**
+ * Live thumbnails of a CusFrame.
+ * Every requested size is cached. When the frame repaints, only the dirty regions are rendered again and
+ * downscaled into the cached thumbnails, at most once per refresh interval. Nothing is rendered while the
+ * frame is iconified; the thumbnails keep their last content until the frame is restored.
+ * The dirty regions are reported by the root pane of the frame, which Swing paints through on the event
+ * dispatch thread, and by the viewports of the frame, whose blit scrolling bypasses the regular painting.
+ * All methods must be called on the event dispatch thread.
+ */
+package Customs;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public class FrameThumbnails {
+
+    // Frame the thumbnails are taken from
+    protected final CusFrame frame;
+    // Cached thumbnails by size
+    protected final Map<Dimension, BufferedImage> images = new LinkedHashMap<>();
+    // Union of the regions repainted since the last refresh, in root pane coordinates, or null if clean
+    protected Rectangle dirtyRegion;
+    // Scratch image the dirty region is rendered into before it is downscaled
+    protected BufferedImage patch;
+    // Throttles the refreshes to one per interval
+    protected final Timer refreshTimer;
+    // Listeners notified after a refresh
+    protected final EventListenerList listeners = new EventListenerList();
+    // Viewports of the frame that report their scrolling, held weakly so that removed viewports can be collected
+    protected final Map<JViewport, Boolean> viewports = new WeakHashMap<>();
+    // Marks the visible part of a viewport as dirty whenever it scrolls
+    protected final ChangeListener viewportListener = this::viewportChanged;
+
+    /**
+     * Constructs the thumbnails of a frame. No thumbnail exists until one is requested.
+     *
+     * @param frame the frame the thumbnails are taken from.
+     */
+    public FrameThumbnails(CusFrame frame) {
+        this.frame = frame;
+        refreshTimer = new Timer(200, e -> refresh());
+        refreshTimer.setRepeats(false);
+    }
+
+    /**
+     * Gets the thumbnail of the frame at the given size.
+     * The returned image is cached and updated in place whenever the frame repaints,
+     * so it should be drawn again when the listeners are notified and must not be modified.
+     *
+     * @param width  The width of the thumbnail.
+     * @param height The height of the thumbnail.
+     * @return The thumbnail.
+     * @throws IllegalStateException if not called on the event dispatch thread.
+     */
+    public BufferedImage getThumbnail(int width, int height) {
+        checkEventDispatchThread();
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("thumbnail size must be positive");
+        }
+        Dimension size = new Dimension(width, height);
+        BufferedImage image = images.get(size);
+        if (image == null) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            images.put(size, image);
+            attachViewports();
+            if (isIconified()) {
+                // Rendered once the frame is restored
+                invalidate();
+            } else {
+                JRootPane rootPane = frame.getRootPane();
+                Rectangle all = new Rectangle(0, 0, rootPane.getWidth(), rootPane.getHeight());
+                if (!all.isEmpty()) {
+                    renderPatch(all);
+                    downscalePatch(all, all, size, image, all);
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Removes the cached thumbnail of the given size. Once no thumbnail is left, repaints cost nothing extra.
+     *
+     * @param width  The width of the thumbnail.
+     * @param height The height of the thumbnail.
+     */
+    public void releaseThumbnail(int width, int height) {
+        checkEventDispatchThread();
+        images.remove(new Dimension(width, height));
+        if (images.isEmpty()) {
+            clear();
+        }
+    }
+
+    /**
+     * Removes all cached thumbnails.
+     */
+    public void clear() {
+        checkEventDispatchThread();
+        images.clear();
+        dirtyRegion = null;
+        patch = null;
+        refreshTimer.stop();
+        for (JViewport viewport : viewports.keySet()) {
+            viewport.removeChangeListener(viewportListener);
+        }
+        viewports.clear();
+    }
+
+    /**
+     * Checks whether there is at least one cached thumbnail.
+     *
+     * @return True if thumbnails have to be kept up to date, otherwise false.
+     */
+    public boolean isActive() {return !images.isEmpty();}
+
+    /**
+     * Sets the minimum time between two thumbnail refreshes.
+     *
+     * @param millis The refresh interval in milliseconds.
+     */
+    public void setRefreshInterval(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("refresh interval must not be negative");
+        }
+        refreshTimer.setInitialDelay(millis);
+    }
+
+    /**
+     * Gets the minimum time between two thumbnail refreshes.
+     *
+     * @return The refresh interval in milliseconds.
+     */
+    public int getRefreshInterval() {return refreshTimer.getInitialDelay();}
+
+    /**
+     * Adds a listener that is notified after the thumbnails have been updated.
+     *
+     * @param listener The listener to add.
+     */
+    public void addChangeListener(ChangeListener listener) {listeners.add(ChangeListener.class, listener);}
+    /**
+     * Removes a listener added by addChangeListener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeChangeListener(ChangeListener listener) {listeners.remove(ChangeListener.class, listener);}
+
+    /**
+     * Listens to the scrolling of every viewport in the frame that is not yet listened to.
+     * Called when the first thumbnail is requested and whenever the root pane is validated on the event
+     * dispatch thread, which is when newly added scroll panes become part of the frame.
+     */
+    public void attachViewports() {
+        if (isActive()) {
+            attachViewports(frame.getRootPane());
+        }
+    }
+
+    /**
+     * Listens to the scrolling of every viewport in a container and its children.
+     *
+     * @param container The container to search.
+     */
+    protected void attachViewports(Container container) {
+        if (container instanceof JViewport && viewports.put((JViewport) container, Boolean.TRUE) == null) {
+            ((JViewport) container).addChangeListener(viewportListener);
+        }
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container) {
+                attachViewports((Container) child);
+            }
+        }
+    }
+
+    /**
+     * Marks the visible part of a viewport as dirty. Blit scrolling copies the viewport content on screen
+     * without repainting it, so this is the only notice the thumbnails get.
+     *
+     * @param e The event of the viewport that scrolled or changed.
+     */
+    protected void viewportChanged(ChangeEvent e) {
+        JViewport viewport = (JViewport) e.getSource();
+        addDirtyRegion(SwingUtilities.convertRectangle(viewport, new Rectangle(viewport.getSize()), frame.getRootPane()));
+    }
+
+    /**
+     * Marks a region of the frame as repainted and schedules a refresh.
+     *
+     * @param region The region in root pane coordinates.
+     */
+    public void addDirtyRegion(Rectangle region) {
+        if (!isActive()) {
+            return;
+        }
+        if (dirtyRegion == null) {
+            dirtyRegion = new Rectangle(region);
+        } else {
+            dirtyRegion.add(region);
+        }
+        scheduleRefresh();
+    }
+
+    /**
+     * Marks the whole frame as repainted, for example after it has been resized.
+     */
+    public void invalidate() {
+        JRootPane rootPane = frame.getRootPane();
+        addDirtyRegion(new Rectangle(0, 0, rootPane.getWidth(), rootPane.getHeight()));
+    }
+
+    /**
+     * Starts the refresh timer if there is something to refresh and the frame is not iconified.
+     * Called again when the frame is restored.
+     */
+    public void scheduleRefresh() {
+        if (dirtyRegion != null && !isIconified() && !refreshTimer.isRunning()) {
+            refreshTimer.start();
+        }
+    }
+
+    /**
+     * Renders the dirty region of the frame and downscales it into every cached thumbnail.
+     */
+    protected void refresh() {
+        if (dirtyRegion == null || isIconified() || !frame.isShowing()) {
+            // Kept dirty, scheduleRefresh is called again when the frame is restored
+            return;
+        }
+        JRootPane rootPane = frame.getRootPane();
+        Rectangle all = new Rectangle(0, 0, rootPane.getWidth(), rootPane.getHeight());
+        Rectangle dirty = dirtyRegion.intersection(all);
+        dirtyRegion = null;
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        // Widen the dirty region so that it covers whole thumbnail pixels in every size
+        Rectangle source = new Rectangle(dirty);
+        for (Dimension size : images.keySet()) {
+            source.add(alignedSourceRegion(dirty, size, all));
+        }
+        renderPatch(source);
+        for (Map.Entry<Dimension, BufferedImage> entry : images.entrySet()) {
+            downscalePatch(source, dirty, entry.getKey(), entry.getValue(), all);
+        }
+
+        ChangeEvent event = new ChangeEvent(frame);
+        for (ChangeListener listener : listeners.getListeners(ChangeListener.class)) {
+            listener.stateChanged(event);
+        }
+    }
+
+    /**
+     * Computes the region of the frame that maps onto whole thumbnail pixels and contains the given region.
+     *
+     * @param region The region in root pane coordinates.
+     * @param size   The size of the thumbnail.
+     * @param all    The bounds of the root pane.
+     * @return The widened region in root pane coordinates.
+     */
+    protected Rectangle alignedSourceRegion(Rectangle region, Dimension size, Rectangle all) {
+        Rectangle target = targetRegion(region, size, all);
+        double scaleX = (double) all.width / size.width;
+        double scaleY = (double) all.height / size.height;
+        int x0 = (int) Math.floor(target.x * scaleX);
+        int y0 = (int) Math.floor(target.y * scaleY);
+        int x1 = (int) Math.ceil((target.x + target.width) * scaleX);
+        int y1 = (int) Math.ceil((target.y + target.height) * scaleY);
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0).intersection(all);
+    }
+
+    /**
+     * Computes the thumbnail pixels touched by a region of the frame.
+     *
+     * @param region The region in root pane coordinates.
+     * @param size   The size of the thumbnail.
+     * @param all    The bounds of the root pane.
+     * @return The region in thumbnail coordinates.
+     */
+    protected Rectangle targetRegion(Rectangle region, Dimension size, Rectangle all) {
+        double scaleX = (double) size.width / all.width;
+        double scaleY = (double) size.height / all.height;
+        int x0 = (int) Math.floor(region.x * scaleX);
+        int y0 = (int) Math.floor(region.y * scaleY);
+        int x1 = (int) Math.ceil((region.x + region.width) * scaleX);
+        int y1 = (int) Math.ceil((region.y + region.height) * scaleY);
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Renders a region of the frame into the scratch image, which is reused as long as it is large enough.
+     *
+     * @param source The region in root pane coordinates.
+     */
+    protected void renderPatch(Rectangle source) {
+        if (patch == null || patch.getWidth() < source.width || patch.getHeight() < source.height) {
+            patch = new BufferedImage(source.width, source.height, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D graphics = patch.createGraphics();
+        graphics.setClip(0, 0, source.width, source.height);
+        graphics.translate(-source.x, -source.y);
+        frame.getRootPane().paint(graphics);
+        graphics.dispose();
+    }
+
+    /**
+     * Downscales a dirty region of the frame from the scratch image into a thumbnail.
+     * Every thumbnail pixel is the average of the block of frame pixels it covers, so that text and thin lines
+     * are not dropped the way they would be by sampling only a few source pixels per thumbnail pixel.
+     *
+     * @param source The region held by the scratch image, in root pane coordinates.
+     * @param dirty  The dirty region, in root pane coordinates.
+     * @param size   The size of the thumbnail.
+     * @param image  The thumbnail.
+     * @param all    The bounds of the root pane.
+     */
+    protected void downscalePatch(Rectangle source, Rectangle dirty, Dimension size, BufferedImage image, Rectangle all) {
+        Rectangle target = targetRegion(dirty, size, all).intersection(new Rectangle(size));
+        Rectangle aligned = alignedSourceRegion(dirty, size, all).intersection(source);
+        if (target.isEmpty() || aligned.isEmpty()) {
+            return;
+        }
+        double scaleX = (double) all.width / size.width;
+        double scaleY = (double) all.height / size.height;
+        int[] pixels = (int[]) patch.getRaster().getDataElements(
+                aligned.x - source.x, aligned.y - source.y, aligned.width, aligned.height, null);
+        int[] averaged = new int[target.width * target.height];
+
+        for (int ty = 0; ty < target.height; ty++) {
+            int y0 = blockStart(target.y + ty, scaleY, aligned.y, aligned.height);
+            int y1 = blockEnd(target.y + ty, scaleY, aligned.y, aligned.height, y0);
+            for (int tx = 0; tx < target.width; tx++) {
+                int x0 = blockStart(target.x + tx, scaleX, aligned.x, aligned.width);
+                int x1 = blockEnd(target.x + tx, scaleX, aligned.x, aligned.width, x0);
+                // Colors are weighted by alpha so that transparent pixels do not darken the average
+                long alpha = 0, red = 0, green = 0, blue = 0;
+                for (int y = y0; y < y1; y++) {
+                    int row = y * aligned.width;
+                    for (int x = x0; x < x1; x++) {
+                        int argb = pixels[row + x];
+                        int a = argb >>> 24;
+                        alpha += a;
+                        red += ((argb >> 16) & 0xFF) * a;
+                        green += ((argb >> 8) & 0xFF) * a;
+                        blue += (argb & 0xFF) * a;
+                    }
+                }
+                int count = (x1 - x0) * (y1 - y0);
+                averaged[ty * target.width + tx] = alpha == 0 ? 0 : (int) (alpha / count) << 24
+                        | (int) (red / alpha) << 16 | (int) (green / alpha) << 8 | (int) (blue / alpha);
+            }
+        }
+        image.getRaster().setDataElements(target.x, target.y, target.width, target.height, averaged);
+    }
+
+    /**
+     * Computes the first source pixel of the block covered by a thumbnail pixel.
+     *
+     * @param target The thumbnail pixel.
+     * @param scale  The number of source pixels per thumbnail pixel.
+     * @param origin The first source pixel held in the block buffer.
+     * @param length The number of source pixels held in the block buffer.
+     * @return The first source pixel, relative to the origin.
+     */
+    protected int blockStart(int target, double scale, int origin, int length) {
+        int start = (int) Math.floor(target * scale) - origin;
+        return Math.max(0, Math.min(start, length - 1));
+    }
+
+    /**
+     * Computes the source pixel after the block covered by a thumbnail pixel. The block holds at least one pixel.
+     *
+     * @param target The thumbnail pixel.
+     * @param scale  The number of source pixels per thumbnail pixel.
+     * @param origin The first source pixel held in the block buffer.
+     * @param length The number of source pixels held in the block buffer.
+     * @param start  The first source pixel of the block, relative to the origin.
+     * @return The source pixel after the block, relative to the origin.
+     */
+    protected int blockEnd(int target, double scale, int origin, int length, int start) {
+        int end = (int) Math.ceil((target + 1) * scale) - origin;
+        return Math.max(start + 1, Math.min(end, length));
+    }
+
+    /**
+     * Makes sure the caller runs on the event dispatch thread, since the thumbnails paint the frame.
+     *
+     * @throws IllegalStateException if not called on the event dispatch thread.
+     */
+    protected void checkEventDispatchThread() {
+        if (!EventQueue.isDispatchThread()) {
+            throw new IllegalStateException("thumbnails must be used on the event dispatch thread");
+        }
+    }
+
+    /**
+     * Checks whether the frame is iconified.
+     *
+     * @return True if the frame is iconified, otherwise false.
+     */
+    protected boolean isIconified() {
+        return (frame.getExtendedState() & Frame.ICONIFIED) != 0;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Immutable look of a CusFrame: title bar colors, button border, button icon variant and corner radius.
+ * Themes are applied to frames through a ThemeRegistry.
+ */
+package Customs;
+
+import javax.swing.border.Border;
+import java.awt.*;
+
+public class Theme {
+
+    // Name the theme is registered under
+    protected final String name;
+    // Title bar colors
+    protected final Color titleBarBackground;
+    protected final Color titleBarForeground;
+    // Border of the title bar buttons
+    protected final Border buttonBorder;
+    // True for the inverted (white) button icons
+    protected final boolean invertedIcons;
+    // Border radius for rounding frame corners
+    protected final double borderRadius;
+
+    /**
+     * Constructs a theme.
+     *
+     * @param name               the name the theme is registered under.
+     * @param titleBarBackground the background color of the title bar.
+     * @param titleBarForeground the foreground color of the title bar.
+     * @param buttonBorder       the border of the title bar buttons.
+     * @param invertedIcons      true for the inverted (white) button icons, false for the normal (black) ones.
+     * @param borderRadius       the border radius for rounding frame corners.
+     */
+    public Theme(String name, Color titleBarBackground, Color titleBarForeground, Border buttonBorder,
+                 boolean invertedIcons, double borderRadius) {
+        if (name == null) {
+            throw new IllegalArgumentException("theme name must not be null");
+        }
+        this.name = name;
+        this.titleBarBackground = titleBarBackground;
+        this.titleBarForeground = titleBarForeground;
+        this.buttonBorder = buttonBorder;
+        this.invertedIcons = invertedIcons;
+        this.borderRadius = borderRadius;
+    }
+
+    /**
+     * Gets the name of the theme.
+     *
+     * @return The name of the theme.
+     */
+    public String getName() {return name;}
+    /**
+     * Gets the background color of the title bar.
+     *
+     * @return The background color of the title bar.
+     */
+    public Color getTitleBarBackground() {return titleBarBackground;}
+    /**
+     * Gets the foreground color of the title bar.
+     *
+     * @return The foreground color of the title bar.
+     */
+    public Color getTitleBarForeground() {return titleBarForeground;}
+    /**
+     * Gets the border of the title bar buttons.
+     *
+     * @return The border of the title bar buttons.
+     */
+    public Border getButtonBorder() {return buttonBorder;}
+    /**
+     * Checks whether the theme uses the inverted button icons.
+     *
+     * @return True for the inverted (white) icons, false for the normal (black) icons.
+     */
+    public boolean isInvertedIcons() {return invertedIcons;}
+    /**
+     * Gets the border radius for rounding frame corners.
+     *
+     * @return The border radius.
+     */
+    public double getBorderRadius() {return borderRadius;}
+    /**
+     * Gets the pre-rendered button icons of the theme.
+     *
+     * @return The button icons.
+     */
+    public TitleBarIcons getIcons() {return TitleBarIcons.get(invertedIcons);}
+}
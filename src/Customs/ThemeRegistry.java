@@ -0,0 +1,142 @@
+/**
+ * Registry of themes and of the frames they are applied to.
+ * Switching the theme updates every registered frame in one batch on the event dispatch thread,
+ * so that all changes are coalesced into a single repaint per frame and the button icons are shared.
+ */
+package Customs;
+
+import java.awt.EventQueue;
+import java.util.*;
+
+public class ThemeRegistry {
+
+    // Registered themes by name
+    protected final Map<String, Theme> themes = new LinkedHashMap<>();
+    // Registered frames, held weakly so that disposed frames can be collected
+    protected final Map<CusFrame, Boolean> frames = Collections.synchronizedMap(new WeakHashMap<>());
+    // Theme applied last, or null if no theme has been applied yet
+    protected volatile Theme currentTheme;
+
+    /**
+     * Registers a theme and pre-renders its button icons. A theme with the same name is replaced.
+     *
+     * @param theme The theme to register.
+     * @throws IllegalArgumentException if the theme is null.
+     */
+    public synchronized void registerTheme(Theme theme) {
+        if (theme == null) {
+            throw new IllegalArgumentException("theme must not be null");
+        }
+        theme.getIcons();
+        themes.put(theme.getName(), theme);
+    }
+
+    /**
+     * Gets a registered theme.
+     *
+     * @param name The name of the theme.
+     * @return The theme, or null if no theme is registered under the name.
+     */
+    public synchronized Theme getTheme(String name) {return themes.get(name);}
+
+    /**
+     * Gets all registered themes in registration order.
+     *
+     * @return The registered themes.
+     */
+    public synchronized List<Theme> getThemes() {return new ArrayList<>(themes.values());}
+
+    /**
+     * Gets the theme applied last.
+     *
+     * @return The current theme, or null if no theme has been applied yet.
+     */
+    public Theme getCurrentTheme() {return currentTheme;}
+
+    /**
+     * Registers a frame. If a theme has already been applied, the frame gets it as well.
+     *
+     * @param frame The frame to register.
+     */
+    public void registerFrame(CusFrame frame) {
+        frames.put(frame, Boolean.TRUE);
+        if (currentTheme != null) {
+            runOnEventDispatchThread(() -> {
+                // Read when the task runs, so that a later switch is not overwritten by this one
+                Theme theme = currentTheme;
+                if (frames.containsKey(frame)) {
+                    frame.applyTheme(theme);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes a frame from the registry. The frame keeps its current look.
+     *
+     * @param frame The frame to remove.
+     */
+    public void unregisterFrame(CusFrame frame) {frames.remove(frame);}
+
+    /**
+     * Applies a registered theme to all registered frames.
+     *
+     * @param name The name of the theme.
+     * @throws IllegalArgumentException if no theme is registered under the name.
+     */
+    public void applyTheme(String name) {
+        Theme theme = getTheme(name);
+        if (theme == null) {
+            throw new IllegalArgumentException("unknown theme: " + name);
+        }
+        applyTheme(theme);
+    }
+
+    /**
+     * Applies a theme to all registered frames in one batch on the event dispatch thread.
+     * If called on the event dispatch thread, the theme is applied immediately, otherwise it is scheduled.
+     * Switches from several threads always end with the frames showing the current theme.
+     * The theme does not have to be registered; if it is not, its button icons are pre-rendered here,
+     * on the calling thread, before the batch is scheduled.
+     *
+     * @param theme The theme to apply.
+     * @throws IllegalArgumentException if the theme is null.
+     */
+    public void applyTheme(Theme theme) {
+        if (theme == null) {
+            throw new IllegalArgumentException("theme must not be null");
+        }
+        theme.getIcons();
+        currentTheme = theme;
+        runOnEventDispatchThread(this::applyCurrentTheme);
+    }
+
+    /**
+     * Applies the current theme to all registered frames. Runs on the event dispatch thread.
+     * The theme and the frames are read when the batch runs, not when it is scheduled, so that a batch
+     * scheduled from another thread cannot undo a switch that was applied on the event dispatch thread meanwhile.
+     */
+    protected void applyCurrentTheme() {
+        Theme theme = currentTheme;
+        List<CusFrame> targets;
+        synchronized (frames) {
+            targets = new ArrayList<>(frames.keySet());
+        }
+        for (CusFrame frame : targets) {
+            frame.applyTheme(theme);
+        }
+    }
+
+    /**
+     * Runs a task on the event dispatch thread, immediately if already on it.
+     *
+     * @param task The task to run.
+     */
+    protected void runOnEventDispatchThread(Runnable task) {
+        if (EventQueue.isDispatchThread()) {
+            task.run();
+        } else {
+            EventQueue.invokeLater(task);
+        }
+    }
+}
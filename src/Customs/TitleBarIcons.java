@@ -0,0 +1,96 @@
+/**
+ * Pre-rendered icons of the title bar buttons.
+ * Each icon variant is loaded and scaled only once and then shared by all frames.
+ */
+package Customs;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class TitleBarIcons {
+
+    // Size of the button icons
+    public static final int ICON_SIZE = 20;
+
+    // Shared icon sets, created on first use
+    protected static TitleBarIcons normal;
+    protected static TitleBarIcons inverted;
+
+    // Button icons
+    protected final ImageIcon minimizeIcon;
+    protected final ImageIcon maximizeIcon;
+    protected final ImageIcon closeIcon;
+    protected final ImageIcon shrinkIcon;
+
+    /**
+     * Loads and scales the icons of one variant.
+     *
+     * @param suffix the suffix of the icon file names, empty for the normal icons.
+     */
+    protected TitleBarIcons(String suffix) {
+        minimizeIcon = load("icons/minimize" + suffix + ".png");
+        maximizeIcon = load("icons/maximize" + suffix + ".png");
+        closeIcon = load("icons/close" + suffix + ".png");
+        shrinkIcon = load("icons/shrink" + suffix + ".png");
+    }
+
+    /**
+     * Gets the shared icons of a variant, loading them if necessary.
+     *
+     * @param isInverted True for the inverted (white) icons, false for the normal (black) icons.
+     * @return The icons of the variant.
+     */
+    public static synchronized TitleBarIcons get(boolean isInverted) {
+        if (isInverted) {
+            if (inverted == null) {
+                inverted = new TitleBarIcons("Inverted");
+            }
+            return inverted;
+        }
+        if (normal == null) {
+            normal = new TitleBarIcons("");
+        }
+        return normal;
+    }
+
+    /**
+     * Loads an icon and scales it to the icon size.
+     *
+     * @param path The path of the icon file.
+     * @return The scaled icon.
+     */
+    protected static ImageIcon load(String path) {
+        Image image = new ImageIcon(path).getImage();
+        BufferedImage scaledImage = new BufferedImage(ICON_SIZE, ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaledImage.createGraphics();
+        graphics.drawImage(image, 0, 0, ICON_SIZE, ICON_SIZE, null);
+        graphics.dispose();
+        return new ImageIcon(scaledImage);
+    }
+
+    /**
+     * Gets the icon of the minimize button.
+     *
+     * @return The minimize icon.
+     */
+    public ImageIcon getMinimizeIcon() {return minimizeIcon;}
+    /**
+     * Gets the icon of the maximize button while the frame is not maximized.
+     *
+     * @return The maximize icon.
+     */
+    public ImageIcon getMaximizeIcon() {return maximizeIcon;}
+    /**
+     * Gets the icon of the close button.
+     *
+     * @return The close icon.
+     */
+    public ImageIcon getCloseIcon() {return closeIcon;}
+    /**
+     * Gets the icon of the maximize button while the frame is maximized.
+     *
+     * @return The shrink icon.
+     */
+    public ImageIcon getShrinkIcon() {return shrinkIcon;}
+}
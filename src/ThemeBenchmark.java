@@ -0,0 +1,124 @@
+import Customs.CusFrame;
+import Customs.Theme;
+import Customs.ThemeRegistry;
+import Customs.TitleBarIcons;
+
+import javax.swing.*;
+import javax.swing.border.LineBorder;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Measures how long a theme switch of 100 open frames takes, from starting the switch until the frames
+ * have been repainted. Run with "batched" (default) to switch through a ThemeRegistry, or with "baseline"
+ * to switch frame by frame with the title bar setters, reloading the button icons for every frame as
+ * invertTitleBarButtons did before the icons were pre-rendered. Needs a display, e.g. xvfb-run.
+ */
+public class ThemeBenchmark {
+
+    // Number of open frames
+    protected static final int FRAMES = 100;
+    // Theme switches that are not measured
+    protected static final int WARMUP_SWITCHES = 20;
+    // Theme switches that are measured
+    protected static final int SWITCHES = 100;
+    // Icon files of one variant
+    protected static final String[] ICONS = {"minimize", "maximize", "close", "shrink"};
+
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+        boolean baseline = args.length > 0 && args[0].equals("baseline");
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("ThemeBenchmark needs a display to open frames, e.g. run it with xvfb-run");
+            System.exit(1);
+        }
+
+        ThemeRegistry registry = new ThemeRegistry();
+        registry.registerTheme(new Theme("light", Color.WHITE, Color.BLACK, new LineBorder(Color.BLACK, 2), false, 20));
+        registry.registerTheme(new Theme("dark", Color.DARK_GRAY, Color.WHITE, new LineBorder(Color.WHITE, 2), true, 20));
+
+        CusFrame[] frames = new CusFrame[FRAMES];
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < FRAMES; i++) {
+                frames[i] = new CusFrame(true, 6, true, 20, 5);
+                frames[i].setTitleBarText("Frame " + i);
+                if (!baseline) {
+                    registry.registerFrame(frames[i]);
+                }
+            }
+        });
+
+        for (int i = 0; i < WARMUP_SWITCHES; i++) {
+            switchTheme(registry, frames, baseline, i % 2 == 0 ? "dark" : "light");
+        }
+
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < SWITCHES; i++) {
+            long nanos = switchTheme(registry, frames, baseline, i % 2 == 0 ? "dark" : "light");
+            total += nanos;
+            min = Math.min(min, nanos);
+            max = Math.max(max, nanos);
+        }
+        System.out.printf("%s, %d frames, %d switches: avg %.2f ms, min %.2f ms, max %.2f ms%n",
+                baseline ? "baseline" : "batched", FRAMES, SWITCHES, total / 1e6 / SWITCHES, min / 1e6, max / 1e6);
+
+        SwingUtilities.invokeAndWait(() -> {
+            for (CusFrame frame : frames) {
+                frame.dispose();
+            }
+        });
+        System.exit(0);
+    }
+
+    /**
+     * Switches the theme and waits until the frames have been repainted.
+     *
+     * @param registry The registry holding the frames in batched mode.
+     * @param frames   The frames to switch in baseline mode.
+     * @param baseline True to switch frame by frame with the title bar setters.
+     * @param name     The name of the theme to apply.
+     * @return The time taken in nanoseconds.
+     */
+    protected static long switchTheme(ThemeRegistry registry, CusFrame[] frames, boolean baseline, String name)
+            throws InterruptedException, InvocationTargetException {
+        long start = System.nanoTime();
+        if (baseline) {
+            Theme theme = registry.getTheme(name);
+            // One event per frame, as when every frame is switched on its own
+            for (CusFrame frame : frames) {
+                SwingUtilities.invokeLater(() -> {
+                    frame.setTitleBarBackground(theme.getTitleBarBackground());
+                    frame.setTitleBarForeground(theme.getTitleBarForeground());
+                    frame.setTitleBarButtonBorder(theme.getButtonBorder());
+                    frame.invertTitleBarButtons();
+                    reloadIcons(theme.isInvertedIcons());
+                });
+            }
+            // Waits until every frame has been switched. The repaints they requested may still be queued behind this
+            SwingUtilities.invokeAndWait(() -> {});
+        } else {
+            SwingUtilities.invokeAndWait(() -> registry.applyTheme(name));
+        }
+        // All repaints were requested before this event is posted, so they have run once it returns
+        SwingUtilities.invokeAndWait(() -> {});
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Loads and scales the button icons of a variant, as invertTitleBarButtons did for every frame
+     * before the icons were pre-rendered.
+     *
+     * @param inverted True for the inverted icons.
+     */
+    protected static void reloadIcons(boolean inverted) {
+        for (String icon : ICONS) {
+            Image image = new ImageIcon("icons/" + icon + (inverted ? "Inverted" : "") + ".png").getImage();
+            BufferedImage scaledImage = new BufferedImage(TitleBarIcons.ICON_SIZE, TitleBarIcons.ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = scaledImage.createGraphics();
+            graphics.drawImage(image, 0, 0, TitleBarIcons.ICON_SIZE, TitleBarIcons.ICON_SIZE, null);
+            graphics.dispose();
+        }
+    }
+}